@@ -0,0 +1,34 @@
+package ma.elhanchir.fileservice.config;
+
+import io.minio.MinioClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Client MinIO partagé entre le stockage GED et le réconciliateur
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "file.storage.type", havingValue = "GED")
+public class MinioConfig {
+
+    @Bean
+    public MinioClient minioClient(@Value("${file.ged.url}") String gedUrl,
+                                   @Value("${file.ged.username}") String username,
+                                   @Value("${file.ged.password}") String password) {
+        try {
+            MinioClient client = MinioClient.builder()
+                    .endpoint(gedUrl)
+                    .credentials(username, password)
+                    .build();
+            log.info("Client MinIO initialisé avec succès pour GED: {}", gedUrl);
+            return client;
+        } catch (Exception e) {
+            log.error("Erreur lors de l'initialisation du client MinIO", e);
+            throw new IllegalStateException("Impossible d'initialiser le client MinIO pour GED", e);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.nio.ByteBuffer;
+
 @Data
 @Builder
 @AllArgsConstructor
@@ -12,4 +14,10 @@ import lombok.NoArgsConstructor;
 public class FileDataResponse {
     private byte[] data;
     private FileMetadata metadata;
+    private ByteBuffer buffer; // contenu mappé en mémoire (FS, gros fichiers), data est null dans ce cas
+
+    public FileDataResponse(byte[] data, FileMetadata metadata) {
+        this.data = data;
+        this.metadata = metadata;
+    }
 }
\ No newline at end of file
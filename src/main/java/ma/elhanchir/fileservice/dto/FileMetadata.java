@@ -17,4 +17,5 @@ public class FileMetadata {
     private long size;
     private String storageType;
     private LocalDateTime uploadedAt;
+    private boolean missing; // objet absent du backend (signalé par le réconciliateur)
 }
@@ -0,0 +1,24 @@
+package ma.elhanchir.fileservice.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+
+@Entity @Data @AllArgsConstructor @NoArgsConstructor @Builder
+public class ReconcilerCheckpoint {
+
+    @Id
+    private String name; // FS_OBJECTS | FS_ROWS | GED_OBJECTS | GED_ROWS
+
+    @Column(length = 1024) // une clé MinIO peut atteindre 1024 caractères
+    private String lastKey; // dernière clé traitée (chemin, objet ou id), null = début
+    private long completedPasses;
+    private LocalDateTime updatedAt;
+}
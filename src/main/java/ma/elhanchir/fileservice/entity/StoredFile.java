@@ -10,6 +10,11 @@ import java.time.LocalDateTime;
 
 
 @Entity @Data @AllArgsConstructor @NoArgsConstructor @Builder
+// Recherches par lot du réconciliateur (StoredFileRepository)
+@Table(indexes = {
+        @Index(columnList = "storageType,storedName"),
+        @Index(columnList = "storageType,storagePath")
+})
 public class StoredFile {
 
     @Id
@@ -24,6 +29,7 @@ public class StoredFile {
     private String storageType; // FS | DB | GED
     private String storagePath; // chemin FS si FS
     private LocalDateTime uploadedAt;
+    private boolean missing; // objet absent du backend (détecté par le réconciliateur)
 
     @Lob
     private byte[] data;
@@ -19,6 +19,7 @@ public interface StoredFileMapper {
     @Mapping(source = "size", target = "size")
     @Mapping(source = "storageType", target = "storageType")
     @Mapping(source = "uploadedAt", target = "uploadedAt")
+    @Mapping(source = "missing", target = "missing")
     FileMetadata toMetadata(StoredFile file);
 
 
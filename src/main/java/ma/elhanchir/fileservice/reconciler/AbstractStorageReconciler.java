@@ -0,0 +1,196 @@
+package ma.elhanchir.fileservice.reconciler;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.elhanchir.fileservice.entity.ReconcilerCheckpoint;
+import ma.elhanchir.fileservice.entity.StoredFile;
+import ma.elhanchir.fileservice.repository.ReconcilerCheckpointRepository;
+import ma.elhanchir.fileservice.repository.StoredFileRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Réconciliation incrémentale entre un backend de stockage et la table StoredFile.
+ *
+ * A chaque exécution, au plus batchSize objets du backend et batchSize lignes sont
+ * vérifiés à partir des curseurs sauvegardés (ReconcilerCheckpoint), jamais une passe complète.
+ * - objet sans ligne : mis en quarantaine (après le délai de grâce, un upload peut être en cours)
+ * - ligne sans objet : restaurée depuis la quarantaine si possible, sinon marquée missing
+ * L'échec d'un élément est journalisé et n'empêche pas le curseur d'avancer au-delà du lot.
+ * Chaque implémentation appelle throttle() avant chaque appel au backend (max-ops-per-second).
+ */
+@Slf4j
+public abstract class AbstractStorageReconciler {
+
+    protected final StoredFileRepository repository;
+    private final ReconcilerCheckpointRepository checkpoints;
+    private final int batchSize;
+    private final long minNanosBetweenOps;
+    private final Duration gracePeriod;
+    private long lastOpNanos;
+
+    protected AbstractStorageReconciler(StoredFileRepository repository,
+                                        ReconcilerCheckpointRepository checkpoints,
+                                        int batchSize,
+                                        int maxOpsPerSecond,
+                                        long gracePeriodMinutes) {
+        this.repository = repository;
+        this.checkpoints = checkpoints;
+        this.batchSize = batchSize;
+        this.minNanosBetweenOps = maxOpsPerSecond > 0 ? 1_000_000_000L / maxOpsPerSecond : 0;
+        this.gracePeriod = Duration.ofMinutes(gracePeriodMinutes);
+    }
+
+    /** Type de stockage géré (FS | GED), utilisé pour filtrer les lignes et nommer les curseurs */
+    protected abstract String storageType();
+
+    /** Liste au plus limit objets dont la clé suit strictement afterKey (null = depuis le début), triés par clé */
+    protected abstract List<StoredObject> listObjectsAfter(String afterKey, int limit) throws Exception;
+
+    protected abstract void quarantine(StoredObject object) throws Exception;
+
+    protected abstract boolean exists(StoredFile file) throws Exception;
+
+    /** Remet en place l'objet d'une ligne depuis la quarantaine, retourne false s'il n'y est pas */
+    protected abstract boolean restore(StoredFile file) throws Exception;
+
+    /** storagePath des objets du lot référencés par une ligne */
+    protected Set<String> referencedPaths(List<StoredObject> batch) {
+        List<String> paths = batch.stream().map(StoredObject::storagePath).toList();
+        return repository.findByStorageTypeAndStoragePathIn(storageType(), paths).stream()
+                .map(StoredFile::getStoragePath)
+                .collect(Collectors.toSet());
+    }
+
+    @Scheduled(fixedDelayString = "${file.reconciler.interval-ms}",
+            initialDelayString = "${file.reconciler.initial-delay-ms}")
+    public void reconcile() {
+        try {
+            reconcileObjects();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            log.error("Erreur lors de la réconciliation des objets {}", storageType(), e);
+        }
+        try {
+            reconcileRows();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Erreur lors de la réconciliation des métadonnées {}", storageType(), e);
+        }
+    }
+
+    void reconcileObjects() throws Exception {
+        ReconcilerCheckpoint checkpoint = checkpoint(storageType() + "_OBJECTS");
+
+        List<StoredObject> batch = listObjectsAfter(checkpoint.getLastKey(), batchSize);
+        if (batch.isEmpty()) {
+            advance(checkpoint, null, true);
+            return;
+        }
+
+        Set<String> referenced = referencedPaths(batch);
+        Instant graceLimit = Instant.now().minus(gracePeriod);
+        int quarantined = 0;
+        int failed = 0;
+
+        for (StoredObject object : batch) {
+            if (referenced.contains(object.storagePath()) || object.lastModified().isAfter(graceLimit)) {
+                continue;
+            }
+            try {
+                quarantine(object);
+                quarantined++;
+                log.warn("Objet orphelin mis en quarantaine ({}): {}", storageType(), object.key());
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                failed++;
+                log.error("Echec de la mise en quarantaine ({}): {}", storageType(), object.key(), e);
+            }
+        }
+
+        boolean endReached = batch.size() < batchSize;
+        advance(checkpoint, endReached ? null : batch.get(batch.size() - 1).key(), endReached);
+        log.debug("Réconciliation objets {}: {} vérifiés, {} en quarantaine, {} en échec",
+                storageType(), batch.size(), quarantined, failed);
+    }
+
+    void reconcileRows() throws Exception {
+        ReconcilerCheckpoint checkpoint = checkpoint(storageType() + "_ROWS");
+        long afterId = checkpoint.getLastKey() == null ? 0L : Long.parseLong(checkpoint.getLastKey());
+
+        List<StoredFile> rows = repository.findByStorageTypeAndIdGreaterThanOrderByIdAsc(
+                storageType(), afterId, PageRequest.of(0, batchSize));
+
+        for (StoredFile row : rows) {
+            try {
+                reconcileRow(row);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("Echec de la réconciliation du fichier ID: {} ({})", row.getId(), storageType(), e);
+            }
+        }
+
+        boolean endReached = rows.size() < batchSize;
+        advance(checkpoint, endReached ? null : String.valueOf(rows.get(rows.size() - 1).getId()), endReached);
+    }
+
+    private void reconcileRow(StoredFile row) throws Exception {
+        boolean present = exists(row);
+        if (!present) {
+            if (restore(row)) {
+                present = true;
+                log.info("Fichier ID: {} restauré depuis la quarantaine ({})", row.getId(), storageType());
+            }
+        }
+        if (present == !row.isMissing()) {
+            return;
+        }
+        row.setMissing(!present);
+        repository.save(row);
+        if (!present) {
+            log.warn("Objet introuvable pour le fichier ID: {} ({}): {}", row.getId(), storageType(), row.getStoragePath());
+        }
+    }
+
+    private ReconcilerCheckpoint checkpoint(String name) {
+        return checkpoints.findById(name)
+                .orElseGet(() -> ReconcilerCheckpoint.builder().name(name).build());
+    }
+
+    private void advance(ReconcilerCheckpoint checkpoint, String lastKey, boolean passCompleted) {
+        checkpoint.setLastKey(lastKey);
+        if (passCompleted) {
+            checkpoint.setCompletedPasses(checkpoint.getCompletedPasses() + 1);
+        }
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpoints.save(checkpoint);
+    }
+
+    /** Limite le nombre d'appels au backend par seconde (le réconciliateur tourne sur le thread du scheduler) */
+    protected void throttle() throws InterruptedException {
+        long waitNanos = lastOpNanos + minNanosBetweenOps - System.nanoTime();
+        if (waitNanos > 0) {
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+        lastOpNanos = System.nanoTime();
+    }
+
+    /**
+     * Objet présent dans le backend
+     * @param key clé ordonnée utilisée comme curseur
+     * @param storagePath valeur attendue dans StoredFile.storagePath
+     */
+    protected record StoredObject(String key, String storagePath, Instant lastModified) {
+    }
+}
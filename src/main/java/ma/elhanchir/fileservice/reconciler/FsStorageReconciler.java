@@ -0,0 +1,188 @@
+package ma.elhanchir.fileservice.reconciler;
+
+import ma.elhanchir.fileservice.entity.StoredFile;
+import ma.elhanchir.fileservice.repository.ReconcilerCheckpointRepository;
+import ma.elhanchir.fileservice.repository.StoredFileRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+@ConditionalOnProperty(name = "file.storage.type", havingValue = "FS")
+@ConditionalOnBooleanProperty("file.reconciler.enabled")
+public class FsStorageReconciler extends AbstractStorageReconciler {
+
+    // Arborescence de FsStorageService : yyyy/MM/storedName
+    private static final int KEY_DEPTH = 3;
+
+    private final Path root;
+    private final Path quarantineDir;
+
+    public FsStorageReconciler(
+            StoredFileRepository repository,
+            ReconcilerCheckpointRepository checkpoints,
+            @Value("${file.fs.upload-dir}") String uploadDir,
+            @Value("${file.reconciler.fs.quarantine-dir}") String quarantineDir,
+            @Value("${file.reconciler.batch-size}") int batchSize,
+            @Value("${file.reconciler.max-ops-per-second}") int maxOpsPerSecond,
+            @Value("${file.reconciler.grace-period-minutes}") long gracePeriodMinutes) {
+        super(repository, checkpoints, batchSize, maxOpsPerSecond, gracePeriodMinutes);
+        this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.quarantineDir = Paths.get(quarantineDir).toAbsolutePath().normalize();
+    }
+
+    @Override
+    protected String storageType() {
+        return "FS";
+    }
+
+    /**
+     * Parcours en profondeur trié : seuls les dossiers pouvant contenir des clés après le curseur
+     * sont listés, et le parcours s'arrête dès que limit fichiers sont trouvés.
+     * Les clés sont les chemins relatifs à la racine (ex: 2024/05/facture.pdf_uuid.pdf).
+     */
+    @Override
+    protected List<StoredObject> listObjectsAfter(String afterKey, int limit) throws Exception {
+        List<StoredObject> result = new ArrayList<>();
+        throttle();
+        if (Files.isDirectory(root)) {
+            collect(root, 0, afterKey == null ? null : Paths.get(afterKey), limit, result);
+        }
+        return result;
+    }
+
+    /**
+     * Les noms situés avant le curseur sont écartés sans aucun appel système :
+     * seuls les éléments après le curseur (au plus limit fichiers) sont inspectés.
+     */
+    private void collect(Path dir, int depth, Path after, int limit, List<StoredObject> result) throws Exception {
+        String cursorName = after != null && after.getNameCount() > depth ? after.getName(depth).toString() : null;
+
+        List<String> names = new ArrayList<>();
+        throttle();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path child : stream) {
+                String name = child.getFileName().toString();
+                if (cursorName == null || name.compareTo(cursorName) >= 0) {
+                    names.add(name);
+                }
+            }
+        }
+        names.sort(null);
+
+        for (String name : names) {
+            if (result.size() >= limit) {
+                return;
+            }
+            Path child = dir.resolve(name);
+            if (child.equals(quarantineDir)) {
+                continue;
+            }
+            // Même nom que le curseur : dossier à reprendre, ou dernier fichier déjà traité
+            boolean onCursor = name.equals(cursorName);
+            if (onCursor && after.getNameCount() == depth + 1) {
+                continue;
+            }
+
+            throttle();
+            BasicFileAttributes attributes = Files.readAttributes(child, BasicFileAttributes.class);
+            if (attributes.isDirectory()) {
+                collect(child, depth + 1, onCursor ? after : null, limit, result);
+            } else if (!onCursor) {
+                result.add(new StoredObject(root.relativize(child).toString(), child.toString(),
+                        attributes.lastModifiedTime().toInstant()));
+            }
+        }
+    }
+
+    /**
+     * Rapprochement par clé relative à la racine plutôt que par chaîne storagePath,
+     * pour rester correct si file.fs.upload-dir change de forme (relatif, "..", lien symbolique).
+     */
+    @Override
+    protected Set<String> referencedPaths(List<StoredObject> batch) {
+        Map<String, StoredObject> byKey = batch.stream()
+                .collect(Collectors.toMap(StoredObject::key, Function.identity()));
+        List<String> names = batch.stream()
+                .map(object -> Paths.get(object.key()).getFileName().toString())
+                .toList();
+
+        Set<String> referenced = new HashSet<>();
+        for (StoredFile file : repository.findByStorageTypeAndStoredNameIn(storageType(), names)) {
+            Path key = keyOf(file);
+            StoredObject object = key == null ? null : byKey.get(key.toString());
+            if (object != null) {
+                referenced.add(object.storagePath());
+            }
+        }
+        return referenced;
+    }
+
+    @Override
+    protected void quarantine(StoredObject object) throws Exception {
+        Path target = quarantineDir.resolve(object.key());
+        throttle();
+        Files.createDirectories(target.getParent());
+        throttle();
+        Files.move(root.resolve(object.key()), target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    protected boolean exists(StoredFile file) throws Exception {
+        if (file.getStoragePath() == null) {
+            return false;
+        }
+        throttle();
+        return Files.isRegularFile(Paths.get(file.getStoragePath()));
+    }
+
+    @Override
+    protected boolean restore(StoredFile file) throws Exception {
+        Path key = keyOf(file);
+        if (key == null) {
+            return false;
+        }
+        Path quarantined = quarantineDir.resolve(key);
+        throttle();
+        if (!Files.isRegularFile(quarantined)) {
+            return false;
+        }
+        Path path = Paths.get(file.getStoragePath()).toAbsolutePath().normalize();
+        throttle();
+        Files.createDirectories(path.getParent());
+        throttle();
+        Files.move(quarantined, path, StandardCopyOption.REPLACE_EXISTING);
+        return true;
+    }
+
+    /**
+     * Clé relative à la racine du fichier d'une ligne. Si storagePath a été enregistré sous une
+     * autre forme de la racine, la clé est reprise des derniers éléments (yyyy/MM/storedName).
+     */
+    private Path keyOf(StoredFile file) {
+        if (file.getStoragePath() == null) {
+            return null;
+        }
+        Path path = Paths.get(file.getStoragePath()).toAbsolutePath().normalize();
+        if (path.startsWith(root)) {
+            return root.relativize(path);
+        }
+        int count = path.getNameCount();
+        return count >= KEY_DEPTH ? path.subpath(count - KEY_DEPTH, count) : null;
+    }
+}
@@ -0,0 +1,164 @@
+package ma.elhanchir.fileservice.reconciler;
+
+import io.minio.*;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.Item;
+import ma.elhanchir.fileservice.entity.StoredFile;
+import ma.elhanchir.fileservice.repository.ReconcilerCheckpointRepository;
+import ma.elhanchir.fileservice.repository.StoredFileRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static ma.elhanchir.fileservice.service.GedStorageService.BUCKET;
+
+@Component
+@ConditionalOnProperty(name = "file.storage.type", havingValue = "GED")
+@ConditionalOnBooleanProperty("file.reconciler.enabled")
+public class GedStorageReconciler extends AbstractStorageReconciler {
+
+    private final MinioClient minioClient;
+    private final String quarantineBucket;
+    // Buckets dont l'existence a déjà été vérifiée, pour ne pas refaire l'appel à chaque objet
+    private final Set<String> knownBuckets = new HashSet<>();
+
+    public GedStorageReconciler(
+            StoredFileRepository repository,
+            ReconcilerCheckpointRepository checkpoints,
+            MinioClient minioClient,
+            @Value("${file.reconciler.ged.quarantine-bucket}") String quarantineBucket,
+            @Value("${file.reconciler.batch-size}") int batchSize,
+            @Value("${file.reconciler.max-ops-per-second}") int maxOpsPerSecond,
+            @Value("${file.reconciler.grace-period-minutes}") long gracePeriodMinutes) {
+        super(repository, checkpoints, batchSize, maxOpsPerSecond, gracePeriodMinutes);
+        this.minioClient = minioClient;
+        this.quarantineBucket = quarantineBucket;
+    }
+
+    @Override
+    protected String storageType() {
+        return "GED";
+    }
+
+    /**
+     * Une seule page de listing MinIO (startAfter + maxKeys), les clés sont renvoyées triées
+     */
+    @Override
+    protected List<StoredObject> listObjectsAfter(String afterKey, int limit) throws Exception {
+        if (!bucketExists(BUCKET)) {
+            return List.of();
+        }
+
+        ListObjectsArgs.Builder args = ListObjectsArgs.builder()
+                .bucket(BUCKET)
+                .recursive(true)
+                .maxKeys(limit);
+        if (afterKey != null) {
+            args.startAfter(afterKey);
+        }
+
+        List<StoredObject> result = new ArrayList<>();
+        throttle();
+        for (Result<Item> entry : minioClient.listObjects(args.build())) {
+            Item item = entry.get();
+            result.add(new StoredObject(item.objectName(), BUCKET + "/" + item.objectName(),
+                    item.lastModified().toInstant()));
+            if (result.size() >= limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Les anciens fichiers sans storagePath sont stockés à la racine du bucket sous leur storedName
+     */
+    @Override
+    protected Set<String> referencedPaths(List<StoredObject> batch) {
+        Set<String> referenced = new HashSet<>(super.referencedPaths(batch));
+        List<String> rootNames = batch.stream()
+                .map(StoredObject::key)
+                .filter(key -> !key.contains("/"))
+                .toList();
+        if (!rootNames.isEmpty()) {
+            repository.findByStorageTypeAndStoredNameIn(storageType(), rootNames)
+                    .forEach(file -> referenced.add(BUCKET + "/" + file.getStoredName()));
+        }
+        return referenced;
+    }
+
+    @Override
+    protected void quarantine(StoredObject object) throws Exception {
+        if (!bucketExists(quarantineBucket)) {
+            throttle();
+            minioClient.makeBucket(MakeBucketArgs.builder().bucket(quarantineBucket).build());
+            knownBuckets.add(quarantineBucket);
+        }
+        move(BUCKET, quarantineBucket, object.key());
+    }
+
+    @Override
+    protected boolean exists(StoredFile file) throws Exception {
+        return objectExists(BUCKET, objectPath(file));
+    }
+
+    @Override
+    protected boolean restore(StoredFile file) throws Exception {
+        String objectPath = objectPath(file);
+        if (!bucketExists(quarantineBucket) || !objectExists(quarantineBucket, objectPath)) {
+            return false;
+        }
+        move(quarantineBucket, BUCKET, objectPath);
+        return true;
+    }
+
+    // Même résolution que GedStorageService.load
+    private String objectPath(StoredFile file) {
+        if (file.getStoragePath() != null && file.getStoragePath().startsWith(BUCKET + "/")) {
+            return file.getStoragePath().substring(BUCKET.length() + 1);
+        }
+        return file.getStoredName();
+    }
+
+    private boolean bucketExists(String bucket) throws Exception {
+        if (knownBuckets.contains(bucket)) {
+            return true;
+        }
+        throttle();
+        boolean exists = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucket).build());
+        if (exists) {
+            knownBuckets.add(bucket);
+        }
+        return exists;
+    }
+
+    private boolean objectExists(String bucket, String object) throws Exception {
+        throttle();
+        try {
+            minioClient.statObject(StatObjectArgs.builder().bucket(bucket).object(object).build());
+            return true;
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private void move(String sourceBucket, String targetBucket, String object) throws Exception {
+        throttle();
+        minioClient.copyObject(CopyObjectArgs.builder()
+                .bucket(targetBucket)
+                .object(object)
+                .source(CopySource.builder().bucket(sourceBucket).object(object).build())
+                .build());
+        throttle();
+        minioClient.removeObject(RemoveObjectArgs.builder().bucket(sourceBucket).object(object).build());
+    }
+}
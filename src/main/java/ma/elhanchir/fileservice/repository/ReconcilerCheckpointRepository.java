@@ -0,0 +1,7 @@
+package ma.elhanchir.fileservice.repository;
+
+import ma.elhanchir.fileservice.entity.ReconcilerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ReconcilerCheckpointRepository extends JpaRepository<ReconcilerCheckpoint, String> {
+}
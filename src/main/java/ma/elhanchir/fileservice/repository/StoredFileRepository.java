@@ -1,7 +1,17 @@
 package ma.elhanchir.fileservice.repository;
 
 import ma.elhanchir.fileservice.entity.StoredFile;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface StoredFileRepository extends JpaRepository<StoredFile, Long> {
+
+    List<StoredFile> findByStorageTypeAndStoragePathIn(String storageType, Collection<String> storagePaths);
+
+    List<StoredFile> findByStorageTypeAndStoredNameIn(String storageType, Collection<String> storedNames);
+
+    List<StoredFile> findByStorageTypeAndIdGreaterThanOrderByIdAsc(String storageType, Long id, Pageable pageable);
 }
@@ -52,4 +52,12 @@ public class DbStorageService implements FileStorageService {
         return new FileDataResponse(storedFile.getData(), mapper.toMetadata(storedFile));
     }
 
+    @Override
+    public FileMetadata loadMetadata(String fileId) {
+        StoredFile storedFile = repository.findById(Long.parseLong(fileId))
+                .orElseThrow(() -> new RuntimeException("Fichier introuvable avec l'ID: " + fileId));
+
+        return mapper.toMetadata(storedFile);
+    }
+
 }
@@ -10,4 +10,5 @@ import java.io.IOException;
 public interface FileStorageService {
     FileMetadata store(MultipartFile file) throws IOException;
     FileDataResponse load(String fileId) throws IOException;
+    FileMetadata loadMetadata(String fileId);
 }
@@ -30,14 +30,22 @@ public class FsStorageService implements FileStorageService {
     private final Path root;
     private final StoredFileRepository repository;
     private final StoredFileMapper mapper;
+    private final MappedFileCache mappedFiles; // null si le mode mmap est désactivé
+    private final long mmapMinSize;
 
     public FsStorageService(
             @Value("${file.fs.upload-dir}") String uploadDir,
             StoredFileRepository repository,
-            StoredFileMapper mapper) {
+            StoredFileMapper mapper,
+            @Value("${file.fs.mmap.enabled}") boolean mmapEnabled,
+            @Value("${file.fs.mmap.min-size}") long mmapMinSize,
+            @Value("${file.fs.mmap.max-entries}") int mmapMaxEntries,
+            @Value("${file.fs.mmap.max-bytes}") long mmapMaxBytes) {
         this.root = Paths.get(uploadDir);
         this.repository = repository;
         this.mapper = mapper;
+        this.mappedFiles = mmapEnabled ? new MappedFileCache(mmapMaxEntries, mmapMaxBytes) : null;
+        this.mmapMinSize = mmapMinSize;
     }
 
     @Override
@@ -79,8 +87,26 @@ public class FsStorageService implements FileStorageService {
         StoredFile file = repository.findById(Long.parseLong(fileId))
                 .orElseThrow(() -> new RuntimeException("Fichier introuvable: " + fileId));
 
-        byte[] data = Files.readAllBytes(Paths.get(file.getStoragePath()));
+        Path path = Paths.get(file.getStoragePath());
+
+        // Gros fichiers : servis depuis un mapping mémoire, sans copie sur le heap
+        if (mappedFiles != null && file.getSize() >= mmapMinSize && file.getSize() <= Integer.MAX_VALUE) {
+            return FileDataResponse.builder()
+                    .buffer(mappedFiles.get(path))
+                    .metadata(mapper.toMetadata(file))
+                    .build();
+        }
+
+        byte[] data = Files.readAllBytes(path);
         return new FileDataResponse(data, mapper.toMetadata(file));
     }
 
+    @Override
+    public FileMetadata loadMetadata(String fileId) {
+        StoredFile file = repository.findById(Long.parseLong(fileId))
+                .orElseThrow(() -> new RuntimeException("Fichier introuvable: " + fileId));
+
+        return mapper.toMetadata(file);
+    }
+
 }
\ No newline at end of file
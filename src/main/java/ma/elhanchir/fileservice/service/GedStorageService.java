@@ -9,7 +9,6 @@ import ma.elhanchir.fileservice.dto.FileMetadata;
 import ma.elhanchir.fileservice.entity.StoredFile;
 import ma.elhanchir.fileservice.mapper.StoredFileMapper;
 import ma.elhanchir.fileservice.repository.StoredFileRepository;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -32,26 +31,15 @@ public class GedStorageService implements FileStorageService {
     private final MinioClient minioClient;
     private final StoredFileRepository repository;
     private final StoredFileMapper mapper;
-    private static final String BUCKET = "documents";
+    public static final String BUCKET = "documents";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM");
 
-    public GedStorageService(StoredFileRepository repository,
-                             StoredFileMapper mapper,
-                             @Value("${file.ged.url}") String gedUrl,
-                             @Value("${file.ged.username}") String username,
-                             @Value("${file.ged.password}") String password) {
+    public GedStorageService(MinioClient minioClient,
+                             StoredFileRepository repository,
+                             StoredFileMapper mapper) {
+        this.minioClient = minioClient;
         this.repository = repository;
         this.mapper = mapper;
-        try {
-            this.minioClient = MinioClient.builder()
-                    .endpoint(gedUrl)
-                    .credentials(username, password)
-                    .build();
-            log.info("Client MinIO initialisé avec succès pour GED: {}", gedUrl);
-        } catch (Exception e) {
-            log.error("Erreur lors de l'initialisation du client MinIO", e);
-            throw new IllegalStateException("Impossible d'initialiser le client MinIO pour GED", e);
-        }
     }
 
     /*@PostConstruct
@@ -184,4 +172,19 @@ public class GedStorageService implements FileStorageService {
             throw new RuntimeException("Erreur lors de la lecture depuis GED: " + e.getMessage(), e);
         }
     }
+
+    @Override
+    public FileMetadata loadMetadata(String fileId) {
+        try {
+            StoredFile file = repository.findById(Long.parseLong(fileId))
+                    .orElseThrow(() -> {
+                        log.warn("Fichier introuvable avec l'ID: {}", fileId);
+                        return new RuntimeException("Fichier introuvable avec l'ID: " + fileId);
+                    });
+            return mapper.toMetadata(file);
+        } catch (NumberFormatException e) {
+            log.error("ID de fichier invalide: {}", fileId, e);
+            throw new IllegalArgumentException("ID de fichier invalide: " + fileId, e);
+        }
+    }
 }
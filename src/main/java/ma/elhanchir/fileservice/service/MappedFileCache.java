@@ -0,0 +1,83 @@
+package ma.elhanchir.fileservice.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pool LRU borné (nombre d'entrées et octets mappés) de fichiers mappés en mémoire pour FsStorageService.
+ * Les lectures répétées d'un même fichier sont servies depuis le page cache sans copie sur le heap.
+ * Une entrée est remappée si la taille ou la date de modification du fichier a changé.
+ * Un fichier plus gros que maxBytes est mappé sans être mis en cache, pour ne pas vider le pool.
+ * Java 21 ne permet pas de démapper explicitement : une entrée évincée est libérée par le GC.
+ */
+class MappedFileCache {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long mappedBytes;
+
+    MappedFileCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /** Retourne une vue en lecture seule, avec sa propre position, du contenu mappé du fichier */
+    ByteBuffer get(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+        synchronized (this) {
+            Entry cached = entries.get(path);
+            if (cached != null && cached.matches(attributes)) {
+                return cached.buffer().asReadOnlyBuffer();
+            }
+        }
+
+        MappedByteBuffer buffer = map(path, attributes.size());
+        Entry entry = new Entry(buffer, attributes.size(), attributes.lastModifiedTime());
+        boolean cacheable = entry.size() <= maxBytes;
+
+        synchronized (this) {
+            Entry previous = cacheable ? entries.put(path, entry) : entries.remove(path);
+            if (previous != null) {
+                mappedBytes -= previous.size();
+            }
+            if (cacheable) {
+                mappedBytes += entry.size();
+                evict();
+            }
+        }
+        return buffer.asReadOnlyBuffer();
+    }
+
+    MappedByteBuffer map(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Path, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext() && (entries.size() > maxEntries || mappedBytes > maxBytes)) {
+            mappedBytes -= it.next().getValue().size();
+            it.remove();
+        }
+    }
+
+    private record Entry(MappedByteBuffer buffer, long size, FileTime lastModified) {
+
+        boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModified.equals(attributes.lastModifiedTime());
+        }
+    }
+}
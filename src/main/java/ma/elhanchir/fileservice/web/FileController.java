@@ -1,5 +1,6 @@
 package ma.elhanchir.fileservice.web;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 import ma.elhanchir.fileservice.dto.FileDataResponse;
 import ma.elhanchir.fileservice.dto.FileMetadata;
@@ -13,6 +14,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
 @RestController
 @RequestMapping("/files")
 @AllArgsConstructor
@@ -62,8 +68,7 @@ public class FileController {
     @GetMapping("/{id}/metadata")
     public ResponseEntity<FileMetadata> getMetadata(@PathVariable String id) {
         try {
-            FileDataResponse response = storageService.load(id);
-            return ResponseEntity.ok(response.getMetadata());
+            return ResponseEntity.ok(storageService.loadMetadata(id));
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
@@ -73,45 +78,67 @@ public class FileController {
      * Télécharge un fichier avec son nom original et extension
      */
     @GetMapping("/{id}/download")
-    public ResponseEntity<byte[]> download(@PathVariable String id) {
+    public ResponseEntity<byte[]> download(@PathVariable String id, HttpServletResponse servletResponse) throws IOException {
+        FileDataResponse response;
+        HttpHeaders headers = new HttpHeaders();
         try {
-            FileDataResponse response = storageService.load(id);
+            response = storageService.load(id);
             FileMetadata metadata = response.getMetadata();
 
-            HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.parseMediaType(metadata.getContentType()));
             headers.setContentDispositionFormData("attachment", metadata.getOriginalName());
             headers.setContentLength(metadata.getSize());
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(response.getData());
-
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
+
+        return respond(response, headers, servletResponse);
     }
 
     /**
      * Affiche un fichier dans le navigateur (preview)
      */
     @GetMapping("/{id}/preview")
-    public ResponseEntity<byte[]> preview(@PathVariable String id) {
+    public ResponseEntity<byte[]> preview(@PathVariable String id, HttpServletResponse servletResponse) throws IOException {
+        FileDataResponse response;
+        HttpHeaders headers = new HttpHeaders();
         try {
-            FileDataResponse response = storageService.load(id);
+            response = storageService.load(id);
             FileMetadata metadata = response.getMetadata();
 
-            HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.parseMediaType(metadata.getContentType()));
             headers.setContentDispositionFormData("inline", metadata.getOriginalName());
             headers.setContentLength(metadata.getSize());
 
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return respond(response, headers, servletResponse);
+    }
+
+    /**
+     * Gros fichiers FS : écriture synchrone sur le thread de la requête, directement depuis le buffer mappé.
+     * Sinon réponse classique à partir du tableau d'octets.
+     */
+    private ResponseEntity<byte[]> respond(FileDataResponse response, HttpHeaders headers,
+                                           HttpServletResponse servletResponse) throws IOException {
+        ByteBuffer buffer = response.getBuffer();
+        if (buffer == null) {
             return ResponseEntity.ok()
                     .headers(headers)
                     .body(response.getData());
+        }
 
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
+        servletResponse.setStatus(HttpStatus.OK.value());
+        headers.forEach((name, values) -> values.forEach(value -> servletResponse.addHeader(name, value)));
+
+        WritableByteChannel channel = Channels.newChannel(servletResponse.getOutputStream());
+        ByteBuffer view = buffer.duplicate();
+        while (view.hasRemaining()) {
+            channel.write(view);
         }
+        return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,223 @@
+package ma.elhanchir.fileservice.reconciler;
+
+import ma.elhanchir.fileservice.entity.ReconcilerCheckpoint;
+import ma.elhanchir.fileservice.entity.StoredFile;
+import ma.elhanchir.fileservice.repository.ReconcilerCheckpointRepository;
+import ma.elhanchir.fileservice.repository.StoredFileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FsStorageReconcilerTests {
+
+    @TempDir
+    Path tempDir;
+
+    private Path root;
+    private Path quarantine;
+    private final List<StoredFile> rows = new ArrayList<>();
+    private final Map<String, ReconcilerCheckpoint> checkpoints = new HashMap<>();
+    private StoredFileRepository repository;
+    private ReconcilerCheckpointRepository checkpointRepository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        root = Files.createDirectories(tempDir.resolve("uploads"));
+        quarantine = tempDir.resolve("quarantine");
+
+        repository = mock(StoredFileRepository.class);
+        when(repository.findByStorageTypeAndStoredNameIn(eq("FS"), anyCollection())).thenAnswer(inv -> {
+            Collection<String> names = inv.getArgument(1);
+            return rows.stream().filter(row -> names.contains(row.getStoredName())).toList();
+        });
+        when(repository.findByStorageTypeAndIdGreaterThanOrderByIdAsc(eq("FS"), anyLong(), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    long afterId = inv.getArgument(1);
+                    Pageable page = inv.getArgument(2);
+                    return rows.stream()
+                            .filter(row -> row.getId() > afterId)
+                            .sorted(Comparator.comparing(StoredFile::getId))
+                            .limit(page.getPageSize())
+                            .toList();
+                });
+        when(repository.save(any(StoredFile.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        checkpointRepository = mock(ReconcilerCheckpointRepository.class);
+        when(checkpointRepository.findById(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(checkpoints.get(inv.<String>getArgument(0))));
+        when(checkpointRepository.save(any(ReconcilerCheckpoint.class))).thenAnswer(inv -> {
+            ReconcilerCheckpoint checkpoint = inv.getArgument(0);
+            checkpoints.put(checkpoint.getName(), checkpoint);
+            return checkpoint;
+        });
+    }
+
+    @Test
+    void listObjectsAfterResumesFromCursorAcrossNestedDirectories() throws Exception {
+        createOld("2024/05/a", "2024/05/b", "2024/05/c", "2024/05-old/d", "2025/01/e");
+        FsStorageReconciler reconciler = reconciler(root.toString(), 2, 60);
+
+        String cursor = null;
+        List<List<String>> batches = new ArrayList<>();
+        do {
+            List<String> batch = reconciler.listObjectsAfter(cursor, 2).stream()
+                    .map(AbstractStorageReconciler.StoredObject::key)
+                    .toList();
+            batches.add(batch);
+            cursor = batch.size() < 2 ? null : batch.get(batch.size() - 1);
+        } while (cursor != null);
+
+        assertThat(batches).containsExactly(
+                List.of("2024/05/a", "2024/05/b"),
+                List.of("2024/05/c", "2024/05-old/d"),
+                List.of("2025/01/e"));
+    }
+
+    @Test
+    void objectsCursorIsResetAtEndOfPass() throws Exception {
+        createOld("2024/05/a", "2024/05/b", "2024/06/c");
+        rows.addAll(List.of(row(1, "2024/05/a"), row(2, "2024/05/b"), row(3, "2024/06/c")));
+        FsStorageReconciler reconciler = reconciler(root.toString(), 2, 60);
+
+        reconciler.reconcileObjects();
+        assertThat(checkpoints.get("FS_OBJECTS").getLastKey()).isEqualTo("2024/05/b");
+        assertThat(checkpoints.get("FS_OBJECTS").getCompletedPasses()).isZero();
+
+        reconciler.reconcileObjects();
+        assertThat(checkpoints.get("FS_OBJECTS").getLastKey()).isNull();
+        assertThat(checkpoints.get("FS_OBJECTS").getCompletedPasses()).isEqualTo(1);
+        assertThat(quarantine).doesNotExist();
+    }
+
+    @Test
+    void orphanIsQuarantinedOnlyAfterGracePeriod() throws Exception {
+        createOld("2024/05/old-orphan");
+        Path recent = Files.createDirectories(root.resolve("2024/05")).resolve("recent-orphan");
+        Files.writeString(recent, "recent");
+
+        reconciler(root.toString(), 10, 60).reconcileObjects();
+
+        assertThat(root.resolve("2024/05/old-orphan")).doesNotExist();
+        assertThat(quarantine.resolve("2024/05/old-orphan")).exists();
+        assertThat(recent).exists();
+    }
+
+    @Test
+    void referencedFileIsKeptWhenUploadDirIsWrittenDifferently() throws Exception {
+        createOld("2024/05/a");
+        rows.add(row(1, "2024/05/a"));
+        String rewrittenRoot = tempDir.resolve("uploads/../uploads/.").toString();
+
+        reconciler(rewrittenRoot, 10, 60).reconcileObjects();
+
+        assertThat(root.resolve("2024/05/a")).exists();
+        assertThat(quarantine).doesNotExist();
+    }
+
+    @Test
+    void failingItemsDoNotBlockTheObjectsCursor() throws Exception {
+        createOld("2024/05/a", "2024/05/b", "2024/05/c");
+        Files.writeString(quarantine, "not a directory");
+        FsStorageReconciler reconciler = reconciler(root.toString(), 2, 60);
+
+        reconciler.reconcileObjects();
+
+        assertThat(checkpoints.get("FS_OBJECTS").getLastKey()).isEqualTo("2024/05/b");
+        assertThat(root.resolve("2024/05/a")).exists();
+        assertThat(root.resolve("2024/05/b")).exists();
+    }
+
+    @Test
+    void quarantineDirInsideRootIsNotWalked() throws Exception {
+        createOld("2024/05/a", "quarantine/2023/01/z");
+        FsStorageReconciler reconciler = new FsStorageReconciler(repository, checkpointRepository,
+                root.toString(), root.resolve("quarantine").toString(), 10, 0, 60);
+
+        assertThat(reconciler.listObjectsAfter(null, 10))
+                .extracting(AbstractStorageReconciler.StoredObject::key)
+                .containsExactly("2024/05/a");
+    }
+
+    @Test
+    void quarantinedFileIsRestoredWhenItsRowShowsUp() throws Exception {
+        createOld("2024/05/a");
+        FsStorageReconciler reconciler = reconciler(root.toString(), 10, 60);
+
+        reconciler.reconcileObjects();
+        assertThat(quarantine.resolve("2024/05/a")).exists();
+
+        StoredFile row = row(1, "2024/05/a");
+        rows.add(row);
+        reconciler.reconcileRows();
+
+        assertThat(root.resolve("2024/05/a")).hasContent("2024/05/a");
+        assertThat(quarantine.resolve("2024/05/a")).doesNotExist();
+        assertThat(row.isMissing()).isFalse();
+    }
+
+    @Test
+    void rowWithoutObjectIsFlaggedThenClearedWhenObjectReappears() throws Exception {
+        StoredFile row = row(1, "2024/05/gone");
+        rows.add(row);
+        FsStorageReconciler reconciler = reconciler(root.toString(), 10, 60);
+
+        reconciler.reconcileRows();
+        assertThat(row.isMissing()).isTrue();
+
+        createOld("2024/05/gone");
+        reconciler.reconcileRows();
+        assertThat(row.isMissing()).isFalse();
+    }
+
+    @Test
+    void rowsCursorAdvancesByIdAndResetsAtEndOfPass() throws Exception {
+        createOld("2024/05/a", "2024/05/b", "2024/05/c");
+        rows.addAll(List.of(row(1, "2024/05/a"), row(2, "2024/05/b"), row(3, "2024/05/c")));
+        FsStorageReconciler reconciler = reconciler(root.toString(), 2, 60);
+
+        reconciler.reconcileRows();
+        assertThat(checkpoints.get("FS_ROWS").getLastKey()).isEqualTo("2");
+
+        reconciler.reconcileRows();
+        assertThat(checkpoints.get("FS_ROWS").getLastKey()).isNull();
+        assertThat(checkpoints.get("FS_ROWS").getCompletedPasses()).isEqualTo(1);
+    }
+
+    private FsStorageReconciler reconciler(String uploadDir, int batchSize, long gracePeriodMinutes) {
+        return new FsStorageReconciler(repository, checkpointRepository,
+                uploadDir, quarantine.toString(), batchSize, 0, gracePeriodMinutes);
+    }
+
+    // Fichiers plus anciens que le délai de grâce, contenu = clé
+    private void createOld(String... keys) throws Exception {
+        FileTime old = FileTime.from(Instant.now().minus(2, ChronoUnit.HOURS));
+        for (String key : keys) {
+            Path file = root.resolve(key);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, key);
+            Files.setLastModifiedTime(file, old);
+        }
+    }
+
+    private StoredFile row(long id, String key) {
+        return StoredFile.builder()
+                .id(id)
+                .storedName(Path.of(key).getFileName().toString())
+                .storageType("FS")
+                .storagePath(root.resolve(key).toString())
+                .build();
+    }
+}
@@ -0,0 +1,255 @@
+package ma.elhanchir.fileservice.reconciler;
+
+import io.minio.*;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import io.minio.messages.Item;
+import ma.elhanchir.fileservice.entity.ReconcilerCheckpoint;
+import ma.elhanchir.fileservice.entity.StoredFile;
+import ma.elhanchir.fileservice.repository.ReconcilerCheckpointRepository;
+import ma.elhanchir.fileservice.repository.StoredFileRepository;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import static ma.elhanchir.fileservice.service.GedStorageService.BUCKET;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GedStorageReconcilerTests {
+
+    private static final String QUARANTINE = "documents-quarantine";
+    private static final Instant OLD = Instant.now().minus(2, ChronoUnit.HOURS);
+
+    // Contenu des buckets MinIO : clé -> date de modification
+    private final Map<String, TreeMap<String, Instant>> buckets = new HashMap<>();
+    private final List<ListObjectsArgs> listings = new ArrayList<>();
+    private final Set<String> failingObjects = new HashSet<>();
+    private int createdBuckets;
+
+    private final List<StoredFile> rows = new ArrayList<>();
+    private final Map<String, ReconcilerCheckpoint> checkpoints = new HashMap<>();
+    private StoredFileRepository repository;
+    private ReconcilerCheckpointRepository checkpointRepository;
+    private MinioClient minioClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        buckets.put(BUCKET, new TreeMap<>());
+
+        minioClient = mock(MinioClient.class);
+        when(minioClient.bucketExists(any(BucketExistsArgs.class)))
+                .thenAnswer(inv -> buckets.containsKey(inv.<BucketExistsArgs>getArgument(0).bucket()));
+        doAnswer(inv -> {
+            buckets.put(inv.<MakeBucketArgs>getArgument(0).bucket(), new TreeMap<>());
+            createdBuckets++;
+            return null;
+        }).when(minioClient).makeBucket(any(MakeBucketArgs.class));
+        when(minioClient.listObjects(any(ListObjectsArgs.class))).thenAnswer(inv -> {
+            ListObjectsArgs args = inv.getArgument(0);
+            listings.add(args);
+            NavigableMap<String, Instant> objects = buckets.get(args.bucket());
+            if (args.startAfter() != null) {
+                objects = objects.tailMap(args.startAfter(), false);
+            }
+            return objects.entrySet().stream()
+                    .limit(args.maxKeys())
+                    .map(entry -> new Result<>(item(entry.getKey(), entry.getValue())))
+                    .toList();
+        });
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenAnswer(inv -> {
+            StatObjectArgs args = inv.getArgument(0);
+            if (failingObjects.contains(args.object())) {
+                throw error("AccessDenied", args.bucket(), args.object());
+            }
+            TreeMap<String, Instant> objects = buckets.get(args.bucket());
+            if (objects == null || !objects.containsKey(args.object())) {
+                throw error("NoSuchKey", args.bucket(), args.object());
+            }
+            return null;
+        });
+        when(minioClient.copyObject(any(CopyObjectArgs.class))).thenAnswer(inv -> {
+            CopyObjectArgs args = inv.getArgument(0);
+            CopySource source = args.source();
+            if (failingObjects.contains(source.object())) {
+                throw error("AccessDenied", source.bucket(), source.object());
+            }
+            buckets.get(args.bucket()).put(args.object(), buckets.get(source.bucket()).get(source.object()));
+            return null;
+        });
+        doAnswer(inv -> {
+            RemoveObjectArgs args = inv.getArgument(0);
+            buckets.get(args.bucket()).remove(args.object());
+            return null;
+        }).when(minioClient).removeObject(any(RemoveObjectArgs.class));
+
+        repository = mock(StoredFileRepository.class);
+        when(repository.findByStorageTypeAndStoragePathIn(eq("GED"), anyCollection())).thenAnswer(inv -> {
+            Collection<String> paths = inv.getArgument(1);
+            return rows.stream().filter(row -> paths.contains(row.getStoragePath())).toList();
+        });
+        when(repository.findByStorageTypeAndStoredNameIn(eq("GED"), anyCollection())).thenAnswer(inv -> {
+            Collection<String> names = inv.getArgument(1);
+            return rows.stream().filter(row -> names.contains(row.getStoredName())).toList();
+        });
+        when(repository.findByStorageTypeAndIdGreaterThanOrderByIdAsc(eq("GED"), anyLong(), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    long afterId = inv.getArgument(1);
+                    Pageable page = inv.getArgument(2);
+                    return rows.stream()
+                            .filter(row -> row.getId() > afterId)
+                            .sorted(Comparator.comparing(StoredFile::getId))
+                            .limit(page.getPageSize())
+                            .toList();
+                });
+        when(repository.save(any(StoredFile.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        checkpointRepository = mock(ReconcilerCheckpointRepository.class);
+        when(checkpointRepository.findById(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(checkpoints.get(inv.<String>getArgument(0))));
+        when(checkpointRepository.save(any(ReconcilerCheckpoint.class))).thenAnswer(inv -> {
+            ReconcilerCheckpoint checkpoint = inv.getArgument(0);
+            checkpoints.put(checkpoint.getName(), checkpoint);
+            return checkpoint;
+        });
+    }
+
+    @Test
+    void listObjectsAfterReadsOnePageStartingAfterCursor() throws Exception {
+        putOld(BUCKET, "2024/05/a", "2024/05/b", "2024/05/c");
+        GedStorageReconciler reconciler = reconciler(2);
+
+        assertThat(reconciler.listObjectsAfter(null, 2))
+                .extracting(AbstractStorageReconciler.StoredObject::key)
+                .containsExactly("2024/05/a", "2024/05/b");
+        assertThat(reconciler.listObjectsAfter("2024/05/b", 2))
+                .extracting(AbstractStorageReconciler.StoredObject::key)
+                .containsExactly("2024/05/c");
+
+        assertThat(listings).hasSize(2);
+        ListObjectsArgs second = listings.get(1);
+        assertThat(second.startAfter()).isEqualTo("2024/05/b");
+        assertThat(second.maxKeys()).isEqualTo(2);
+        assertThat(second.recursive()).isTrue();
+    }
+
+    @Test
+    void orphansAreMovedToLazilyCreatedQuarantineBucket() throws Exception {
+        putOld(BUCKET, "2024/05/kept", "2024/05/orphan-1", "2024/05/orphan-2");
+        rows.add(row(1, "2024/05/kept"));
+        GedStorageReconciler reconciler = reconciler(10);
+        assertThat(buckets.containsKey(QUARANTINE)).isFalse();
+
+        reconciler.reconcileObjects();
+
+        assertThat(createdBuckets).isEqualTo(1);
+        assertThat(new ArrayList<>(buckets.get(BUCKET).keySet())).containsExactly("2024/05/kept");
+        assertThat(new ArrayList<>(buckets.get(QUARANTINE).keySet()))
+                .containsExactly("2024/05/orphan-1", "2024/05/orphan-2");
+    }
+
+    @Test
+    void legacyRootObjectIsMatchedByStoredName() throws Exception {
+        putOld(BUCKET, "legacy.pdf_uuid.pdf");
+        rows.add(StoredFile.builder().id(1L).storedName("legacy.pdf_uuid.pdf").storageType("GED").build());
+
+        reconciler(10).reconcileObjects();
+
+        assertThat(buckets.get(BUCKET).containsKey("legacy.pdf_uuid.pdf")).isTrue();
+        assertThat(buckets.containsKey(QUARANTINE)).isFalse();
+    }
+
+    @Test
+    void noSuchKeyMeansAbsentWhileOtherErrorsAreRethrown() throws Exception {
+        failingObjects.add("2024/05/denied");
+        GedStorageReconciler reconciler = reconciler(10);
+
+        assertThat(reconciler.exists(row(1, "2024/05/absent"))).isFalse();
+        assertThatThrownBy(() -> reconciler.exists(row(2, "2024/05/denied")))
+                .isInstanceOf(ErrorResponseException.class);
+    }
+
+    @Test
+    void quarantinedObjectIsRestoredForItsRow() throws Exception {
+        buckets.put(QUARANTINE, new TreeMap<>());
+        putOld(QUARANTINE, "2024/05/a");
+        StoredFile row = row(1, "2024/05/a");
+        rows.add(row);
+
+        reconciler(10).reconcileRows();
+
+        assertThat(buckets.get(BUCKET).containsKey("2024/05/a")).isTrue();
+        assertThat(buckets.get(QUARANTINE).containsKey("2024/05/a")).isFalse();
+        assertThat(row.isMissing()).isFalse();
+    }
+
+    @Test
+    void failingItemsDoNotBlockEitherCursor() throws Exception {
+        putOld(BUCKET, "2024/05/a", "2024/05/b", "2024/05/c");
+        failingObjects.add("2024/05/a");
+        StoredFile denied = row(1, "2024/05/a");
+        StoredFile absent = row(2, "2024/05/absent");
+        rows.addAll(List.of(denied, absent, row(3, "2024/05/other")));
+        GedStorageReconciler reconciler = reconciler(2);
+
+        reconciler.reconcileObjects();
+        assertThat(checkpoints.get("GED_OBJECTS").getLastKey()).isEqualTo("2024/05/b");
+        assertThat(buckets.get(QUARANTINE).containsKey("2024/05/b")).isTrue();
+
+        reconciler.reconcileRows();
+        assertThat(checkpoints.get("GED_ROWS").getLastKey()).isEqualTo("2");
+        assertThat(denied.isMissing()).isFalse();
+        assertThat(absent.isMissing()).isTrue();
+    }
+
+    private GedStorageReconciler reconciler(int batchSize) {
+        return new GedStorageReconciler(repository, checkpointRepository, minioClient, QUARANTINE, batchSize, 0, 60);
+    }
+
+    private void putOld(String bucket, String... keys) {
+        for (String key : keys) {
+            buckets.get(bucket).put(key, OLD);
+        }
+    }
+
+    private static StoredFile row(long id, String objectPath) {
+        return StoredFile.builder()
+                .id(id)
+                .storedName(objectPath.substring(objectPath.lastIndexOf('/') + 1))
+                .storageType("GED")
+                .storagePath(BUCKET + "/" + objectPath)
+                .build();
+    }
+
+    private static Item item(String key, Instant lastModified) {
+        return new Item(key) {
+            @Override
+            public ZonedDateTime lastModified() {
+                return lastModified.atZone(ZoneOffset.UTC);
+            }
+        };
+    }
+
+    private static ErrorResponseException error(String code, String bucket, String object) {
+        Response response = new Response.Builder()
+                .request(new Request.Builder().url("http://localhost:9000/" + bucket + "/" + object).build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(code.equals("NoSuchKey") ? 404 : 403)
+                .message(code)
+                .build();
+        return new ErrorResponseException(new ErrorResponse(code, code, bucket, object, null, null, null), response, null);
+    }
+}
@@ -0,0 +1,31 @@
+package ma.elhanchir.fileservice.repository;
+
+import ma.elhanchir.fileservice.entity.ReconcilerCheckpoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class ReconcilerCheckpointRepositoryTests {
+
+    @Autowired
+    private ReconcilerCheckpointRepository repository;
+
+    @Test
+    void keyLongerThanDefaultColumnLengthIsSaved() {
+        String longKey = "2024/05/" + "a".repeat(1000);
+
+        repository.saveAndFlush(ReconcilerCheckpoint.builder()
+                .name("GED_OBJECTS")
+                .lastKey(longKey)
+                .updatedAt(LocalDateTime.now())
+                .build());
+
+        assertThat(repository.findById("GED_OBJECTS"))
+                .hasValueSatisfying(checkpoint -> assertThat(checkpoint.getLastKey()).isEqualTo(longKey));
+    }
+}
@@ -0,0 +1,110 @@
+package ma.elhanchir.fileservice.service;
+
+import ma.elhanchir.fileservice.dto.FileDataResponse;
+import ma.elhanchir.fileservice.entity.StoredFile;
+import ma.elhanchir.fileservice.mapper.StoredFileMapper;
+import ma.elhanchir.fileservice.repository.StoredFileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FsStorageServiceTests {
+
+    private static final long MIN_SIZE = 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<Long, StoredFile> rows = new HashMap<>();
+    private StoredFileRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(StoredFileRepository.class);
+        when(repository.findById(anyLong())).thenAnswer(inv -> Optional.ofNullable(rows.get(inv.<Long>getArgument(0))));
+    }
+
+    @Test
+    void fileAboveMinSizeIsServedFromMappedBuffer() throws Exception {
+        byte[] content = stored(1, (int) MIN_SIZE);
+
+        FileDataResponse response = service(true).load("1");
+
+        assertThat(response.getData()).isNull();
+        assertThat(response.getBuffer()).isNotNull();
+        assertThat(bytes(response.getBuffer())).isEqualTo(content);
+        assertThat(response.getMetadata().getFileId()).isEqualTo("1");
+    }
+
+    @Test
+    void fileBelowMinSizeIsReadIntoByteArray() throws Exception {
+        byte[] content = stored(1, (int) MIN_SIZE - 1);
+
+        FileDataResponse response = service(true).load("1");
+
+        assertThat(response.getBuffer()).isNull();
+        assertThat(response.getData()).isEqualTo(content);
+    }
+
+    @Test
+    void disabledMmapReadsLargeFileIntoByteArray() throws Exception {
+        byte[] content = stored(1, (int) MIN_SIZE * 4);
+
+        FileDataResponse response = service(false).load("1");
+
+        assertThat(response.getBuffer()).isNull();
+        assertThat(response.getData()).isEqualTo(content);
+    }
+
+    @Test
+    void mappedBufferIsIndependentForEachRead() throws Exception {
+        byte[] content = stored(1, (int) MIN_SIZE * 2);
+        FsStorageService service = service(true);
+
+        bytes(service.load("1").getBuffer());
+
+        assertThat(bytes(service.load("1").getBuffer())).isEqualTo(content);
+    }
+
+    private FsStorageService service(boolean mmapEnabled) {
+        return new FsStorageService(tempDir.toString(), repository, StoredFileMapper.INSTANCE,
+                mmapEnabled, MIN_SIZE, 16, 1024 * 1024);
+    }
+
+    // Fichier au contenu aléatoire et sa ligne en base
+    private byte[] stored(long id, int size) throws Exception {
+        byte[] content = new byte[size];
+        new Random(id).nextBytes(content);
+        Path path = Files.write(tempDir.resolve("file-" + id + ".pdf"), content);
+        rows.put(id, StoredFile.builder()
+                .id(id)
+                .originalName("file-" + id + ".pdf")
+                .storedName(path.getFileName().toString())
+                .extension("pdf")
+                .contentType("application/pdf")
+                .size(size)
+                .storageType("FS")
+                .storagePath(path.toString())
+                .build());
+        return content;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] result = new byte[buffer.remaining()];
+        buffer.get(result);
+        return result;
+    }
+}
@@ -0,0 +1,144 @@
+package ma.elhanchir.fileservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedFileCacheTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void repeatedReadIsServedFromCache() throws Exception {
+        Path file = file("a", 100);
+        CountingCache cache = new CountingCache(10, 1000);
+
+        ByteBuffer first = cache.get(file);
+        ByteBuffer second = cache.get(file);
+
+        assertThat(cache.mapCount(file)).isEqualTo(1);
+        assertThat(content(first)).isEqualTo(Files.readString(file));
+        assertThat(content(second)).isEqualTo(Files.readString(file));
+    }
+
+    @Test
+    void changedSizeTriggersRemap() throws Exception {
+        Path file = file("a", 100);
+        CountingCache cache = new CountingCache(10, 1000);
+        cache.get(file);
+
+        Files.writeString(file, "x".repeat(150));
+
+        assertThat(cache.get(file).remaining()).isEqualTo(150);
+        assertThat(cache.mapCount(file)).isEqualTo(2);
+    }
+
+    @Test
+    void changedModificationTimeTriggersRemap() throws Exception {
+        Path file = file("a", 100);
+        CountingCache cache = new CountingCache(10, 1000);
+        cache.get(file);
+
+        Files.writeString(file, "y".repeat(100));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 60_000));
+
+        assertThat(content(cache.get(file))).isEqualTo("y".repeat(100));
+        assertThat(cache.mapCount(file)).isEqualTo(2);
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedByEntryCount() throws Exception {
+        Path a = file("a", 10);
+        Path b = file("b", 10);
+        Path c = file("c", 10);
+        CountingCache cache = new CountingCache(2, 1000);
+
+        cache.get(a);
+        cache.get(b);
+        cache.get(a);
+        cache.get(c);
+
+        cache.get(a);
+        assertThat(cache.mapCount(a)).isEqualTo(1);
+        cache.get(b);
+        assertThat(cache.mapCount(b)).isEqualTo(2);
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedByMappedBytes() throws Exception {
+        Path a = file("a", 100);
+        Path b = file("b", 100);
+        Path c = file("c", 100);
+        CountingCache cache = new CountingCache(10, 250);
+
+        cache.get(a);
+        cache.get(b);
+        cache.get(c);
+
+        cache.get(b);
+        cache.get(c);
+        assertThat(cache.mapCount(b)).isEqualTo(1);
+        assertThat(cache.mapCount(c)).isEqualTo(1);
+        cache.get(a);
+        assertThat(cache.mapCount(a)).isEqualTo(2);
+    }
+
+    @Test
+    void fileLargerThanPoolIsServedWithoutEvictingOtherEntries() throws Exception {
+        Path a = file("a", 100);
+        Path b = file("b", 100);
+        Path big = file("big", 1000);
+        CountingCache cache = new CountingCache(10, 500);
+
+        cache.get(a);
+        cache.get(b);
+        assertThat(cache.get(big).remaining()).isEqualTo(1000);
+
+        cache.get(a);
+        cache.get(b);
+        assertThat(cache.mapCount(a)).isEqualTo(1);
+        assertThat(cache.mapCount(b)).isEqualTo(1);
+        cache.get(big);
+        assertThat(cache.mapCount(big)).isEqualTo(2);
+    }
+
+    private Path file(String name, int size) throws IOException {
+        return Files.writeString(tempDir.resolve(name), name.substring(0, 1).repeat(size));
+    }
+
+    private static String content(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+
+    // Compte les mappings effectifs pour distinguer un accès au cache d'un remapping
+    private static class CountingCache extends MappedFileCache {
+
+        private final Map<Path, Integer> maps = new HashMap<>();
+
+        CountingCache(int maxEntries, long maxBytes) {
+            super(maxEntries, maxBytes);
+        }
+
+        @Override
+        MappedByteBuffer map(Path path, long size) throws IOException {
+            maps.merge(path, 1, Integer::sum);
+            return super.map(path, size);
+        }
+
+        int mapCount(Path path) {
+            return maps.getOrDefault(path, 0);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ma.elhanchir.fileservice.web;
+
+import ma.elhanchir.fileservice.entity.StoredFile;
+import ma.elhanchir.fileservice.mapper.StoredFileMapper;
+import ma.elhanchir.fileservice.repository.StoredFileRepository;
+import ma.elhanchir.fileservice.service.FsStorageService;
+import ma.elhanchir.fileservice.validation.FileValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class FileControllerTests {
+
+    private static final long MIN_SIZE = 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<Long, StoredFile> rows = new HashMap<>();
+    private StoredFileRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(StoredFileRepository.class);
+        when(repository.findById(anyLong())).thenAnswer(inv -> Optional.ofNullable(rows.get(inv.<Long>getArgument(0))));
+    }
+
+    @Test
+    void largeFileIsDownloadedFromMappedBuffer() throws Exception {
+        byte[] content = stored(1, (int) MIN_SIZE * 8);
+
+        mockMvc(true).perform(get("/files/1/download"))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, content.length))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/pdf"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "form-data; name=\"attachment\"; filename=\"file-1.pdf\""))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void smallFileIsDownloadedFromByteArray() throws Exception {
+        byte[] content = stored(1, (int) MIN_SIZE - 1);
+
+        mockMvc(true).perform(get("/files/1/download"))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, content.length))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void largeFileIsDownloadedFromByteArrayWhenMmapIsDisabled() throws Exception {
+        byte[] content = stored(1, (int) MIN_SIZE * 8);
+
+        mockMvc(false).perform(get("/files/1/download"))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, content.length))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void largeFileIsPreviewedFromMappedBuffer() throws Exception {
+        byte[] content = stored(1, (int) MIN_SIZE * 8);
+
+        mockMvc(true).perform(get("/files/1/preview"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "form-data; name=\"inline\"; filename=\"file-1.pdf\""))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void unknownFileIsNotFound() throws Exception {
+        mockMvc(true).perform(get("/files/42/download"))
+                .andExpect(status().isNotFound());
+    }
+
+    private MockMvc mockMvc(boolean mmapEnabled) {
+        FsStorageService storageService = new FsStorageService(tempDir.toString(), repository,
+                StoredFileMapper.INSTANCE, mmapEnabled, MIN_SIZE, 16, 1024 * 1024);
+        FileController controller = new FileController(storageService, new FileValidator("pdf", 10485760));
+        return MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    // Fichier au contenu aléatoire et sa ligne en base
+    private byte[] stored(long id, int size) throws Exception {
+        byte[] content = new byte[size];
+        new Random(id).nextBytes(content);
+        Path path = Files.write(tempDir.resolve("file-" + id + ".pdf"), content);
+        rows.put(id, StoredFile.builder()
+                .id(id)
+                .originalName("file-" + id + ".pdf")
+                .storedName(path.getFileName().toString())
+                .extension("pdf")
+                .contentType("application/pdf")
+                .size(size)
+                .storageType("FS")
+                .storagePath(path.toString())
+                .build());
+        return content;
+    }
+}